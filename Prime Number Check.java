@@ -1,15 +1,277 @@
-public class PrimeCheck {
-    public static void main(String[] args) {
-        int num = 29;
-        boolean isPrime = true;
-        
-        for (int i = 2; i <= num / 2; ++i) {
-            if (num % i == 0) {
-                isPrime = false;
-                break;
-            }
-        }
-        
-        System.out.println(num + (isPrime ? " is prime" : " is not prime"));
-    }
-}
\ No newline at end of file
+import java.util.*;
+import java.util.stream.*;
+
+public class PrimeCheck {
+    // Bases that make Miller-Rabin deterministic for every 64-bit value (Jim Sinclair, 2011)
+    private static final long[] WITNESSES = {2, 325, 9375, 28178, 450775, 9780504, 1795265022};
+    // Enough for every n < 2^32 (Jaeschke, 1993)
+    private static final long[] WITNESSES_32 = {2, 7, 61};
+    private static final int[] SMALL_PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+
+    // One segment fills a typical 32 KB L1 data cache; each bit stands for one odd number
+    private static final int SEGMENT_WORDS = 32 * 1024 / Long.BYTES;
+    private static final long SEGMENT_ODDS = SEGMENT_WORDS * 64L;
+
+    // Keeps the base primes (up to sqrt(to)) small enough to sieve up front
+    public static final long MAX_SIEVE_LIMIT = 1L << 50;
+
+    private static final int PARALLEL_BATCH_THRESHOLD = 1 << 12;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    public static void main(String[] args) {
+        int num = 29;
+        boolean isPrime = isPrime(num);
+
+        System.out.println(num + (isPrime ? " is prime" : " is not prime"));
+    }
+
+    /** Deterministic Miller-Rabin test, exact for every {@code long}. */
+    public static boolean isPrime(long n) {
+        if (n < 2) return false;
+        for (int p : SMALL_PRIMES) {
+            if (n % p == 0) return n == p;
+        }
+        if (n < 41L * 41L) return true;
+
+        Montgomery m = new Montgomery(n);
+        long d = n - 1;
+        int s = Long.numberOfTrailingZeros(d);
+        d >>>= s;
+        for (long a : n < 1L << 32 ? WITNESSES_32 : WITNESSES) {
+            a %= n;
+            if (a != 0 && !m.passes(a, d, s)) return false;
+        }
+        return true;
+    }
+
+    /** Tests every value; large batches are split across the common fork-join pool. */
+    public static boolean[] isPrime(long[] values) {
+        boolean[] result = new boolean[values.length];
+        IntStream indices = IntStream.range(0, values.length);
+        if (values.length >= PARALLEL_BATCH_THRESHOLD) indices = indices.parallel();
+        indices.forEach(i -> result[i] = isPrime(values[i]));
+        return result;
+    }
+
+    /** Smallest prime {@code >= n}, e.g. for sizing hash tables. */
+    public static long nextPrime(long n) {
+        if (n <= 2) return 2;
+        for (long candidate = n | 1; candidate > 0; candidate += 2) {
+            if (isPrime(candidate)) return candidate;
+        }
+        throw new ArithmeticException("No prime >= " + n + " fits in a long");
+    }
+
+    /**
+     * All primes in {@code [from, to]} in ascending order, using a segmented Sieve of
+     * Eratosthenes whose segments are sieved in parallel. Ranges that could hold more primes
+     * than fit in an array are rejected.
+     */
+    public static long[] primesInRange(long from, long to) {
+        if (to > MAX_SIEVE_LIMIT) {
+            throw new IllegalArgumentException("Sieve limit is " + MAX_SIEVE_LIMIT + ", use isPrime above it: " + to);
+        }
+        from = Math.max(from, 2);
+        if (from > to) return new long[0];
+        if (maxPrimesIn(to - from + 1) > MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("Range may hold more primes than fit in an array: " + from + ".." + to);
+        }
+
+        int[] basePrimes = basePrimes((int) Math.sqrt((double) to) + 1);
+        long firstOdd = from | 1;
+        long odds = to >= firstOdd ? (to - firstOdd) / 2 + 1 : 0;
+        long segments = (odds + SEGMENT_ODDS - 1) / SEGMENT_ODDS;
+
+        long[][] found = IntStream.range(0, (int) segments).parallel()
+                .mapToObj(seg -> {
+                    long low = firstOdd + 2L * seg * SEGMENT_ODDS;
+                    int bits = (int) Math.min(SEGMENT_ODDS, odds - seg * SEGMENT_ODDS);
+                    return sieveSegment(low, bits, basePrimes);
+                })
+                .toArray(long[][]::new);
+
+        boolean includeTwo = from == 2;
+        int total = includeTwo ? 1 : 0;
+        for (long[] primes : found) total += primes.length;
+        long[] result = new long[total];
+        int pos = 0;
+        if (includeTwo) result[pos++] = 2;
+        for (long[] primes : found) {
+            System.arraycopy(primes, 0, result, pos, primes.length);
+            pos += primes.length;
+        }
+        return result;
+    }
+
+    /** Upper bound on the primes among {@code width} consecutive integers (Montgomery-Vaughan: pi(x + y) - pi(x) < 2y / ln y). */
+    private static long maxPrimesIn(long width) {
+        if (width < 3) return width;
+        return Math.min((width + 1) / 2 + 1, (long) Math.ceil(2 * width / Math.log(width)));
+    }
+
+    /** Sieves the odd numbers {@code low, low + 2, ...} ({@code bits} of them); {@code low} is odd and at least 3. */
+    private static long[] sieveSegment(long low, int bits, int[] basePrimes) {
+        long[] composite = new long[(bits + 63) >>> 6];
+        long high = low + 2L * (bits - 1);
+
+        for (int p : basePrimes) {
+            long square = (long) p * p;
+            if (square > high) break;
+            long start = Math.max(square, (low + p - 1) / p * p);
+            if ((start & 1) == 0) start += p;
+            for (long bit = (start - low) >>> 1; bit < bits; bit += p) {
+                composite[(int) (bit >>> 6)] |= 1L << bit;
+            }
+        }
+
+        long[] primes = new long[bits - Arrays.stream(composite).mapToInt(Long::bitCount).sum()];
+        int count = 0;
+        for (int w = 0; w < composite.length; w++) {
+            long open = ~composite[w];
+            if (w == composite.length - 1 && (bits & 63) != 0) open &= (1L << bits) - 1;
+            while (open != 0) {
+                primes[count++] = low + 2L * ((w << 6) + Long.numberOfTrailingZeros(open));
+                open &= open - 1;
+            }
+        }
+        return primes;
+    }
+
+    /** Odd primes up to {@code limit}. */
+    private static int[] basePrimes(int limit) {
+        if (limit < 3) return new int[0];
+        BitSet composite = new BitSet(limit / 2 + 1); // bit i stands for 2i + 1
+        for (int i = 1; (long) (2 * i + 1) * (2 * i + 1) <= limit; i++) {
+            if (composite.get(i)) continue;
+            int p = 2 * i + 1;
+            for (int j = (p * p) / 2; j <= limit / 2; j += p) composite.set(j);
+        }
+        return IntStream.rangeClosed(1, (limit - 1) / 2).filter(i -> !composite.get(i)).map(i -> 2 * i + 1).toArray();
+    }
+
+    /** Arithmetic modulo an odd {@code n} in Montgomery form with R = 2^64. */
+    private static final class Montgomery {
+        private final long n;
+        private final long nInv; // n^-1 mod 2^64
+        private final long one;  // R mod n
+        private final long r2;   // R^2 mod n
+
+        Montgomery(long n) {
+            this.n = n;
+            long inv = n; // correct to 3 bits for odd n, each Newton step doubles that
+            for (int i = 0; i < 5; i++) inv *= 2 - n * inv;
+            this.nInv = inv;
+            this.one = Long.remainderUnsigned(-n, n);
+            long r = one;
+            for (int i = 0; i < 64; i++) r = addMod(r, r);
+            this.r2 = r;
+        }
+
+        /** Miller-Rabin round for witness {@code a}, where {@code n - 1 = d * 2^s} with {@code d} odd. */
+        boolean passes(long a, long d, int s) {
+            long minusOne = n - one;
+            long x = pow(multiply(a, r2), d);
+            if (x == one || x == minusOne) return true;
+            for (int i = 1; i < s; i++) {
+                x = multiply(x, x);
+                if (x == minusOne) return true;
+            }
+            return false;
+        }
+
+        private long pow(long base, long exponent) {
+            long result = one;
+            while (exponent != 0) {
+                if ((exponent & 1) != 0) result = multiply(result, base);
+                base = multiply(base, base);
+                exponent >>>= 1;
+            }
+            return result;
+        }
+
+        /** a * b * R^-1 mod n, for a, b < n. */
+        private long multiply(long a, long b) {
+            long low = a * b;
+            long high = unsignedMultiplyHigh(a, b);
+            // m * n agrees with a * b in the low 64 bits, so subtracting leaves only the high word
+            long mn = unsignedMultiplyHigh(low * nInv, n);
+            long t = high - mn;
+            return Long.compareUnsigned(high, mn) < 0 ? t + n : t;
+        }
+
+        private long addMod(long a, long b) {
+            long sum = a + b;
+            return Long.compareUnsigned(sum, a) < 0 || Long.compareUnsigned(sum, n) >= 0 ? sum - n : sum;
+        }
+
+        private static long unsignedMultiplyHigh(long a, long b) {
+            return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+        }
+    }
+}
+
+/** Compares the API above with the original trial-division loop. */
+class PrimeCheckBenchmark {
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) {
+        // Trial division to n/2 costs ~n/2 steps per prime, so the shared range stays small
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long start = 1_000_000L;
+        long end = start + 2L * count;
+
+        long[] values = LongStream.range(start, end).filter(v -> (v & 1) == 1).toArray();
+        report("trial division to n/2", values.length, best(() -> {
+            int primes = 0;
+            for (long v : values) if (isPrimeTrialDivision(v)) primes++;
+            return primes;
+        }));
+        report("Miller-Rabin", values.length, best(() -> {
+            int primes = 0;
+            for (long v : values) if (PrimeCheck.isPrime(v)) primes++;
+            return primes;
+        }));
+        report("Miller-Rabin batch", values.length, best(() -> {
+            int primes = 0;
+            for (boolean p : PrimeCheck.isPrime(values)) if (p) primes++;
+            return primes;
+        }));
+        report("segmented sieve", values.length, best(() -> PrimeCheck.primesInRange(start, end - 1).length));
+
+        long[] large = new Random(42).longs(count, Long.MAX_VALUE / 2, Long.MAX_VALUE).toArray();
+        report("Miller-Rabin 63-bit", large.length, best(() -> {
+            int primes = 0;
+            for (long v : large) if (PrimeCheck.isPrime(v)) primes++;
+            return primes;
+        }));
+    }
+
+    /** The loop PrimeCheck.main used before, kept as the baseline. */
+    static boolean isPrimeTrialDivision(long num) {
+        if (num < 2) return false;
+        for (long i = 2; i <= num / 2; ++i) {
+            if (num % i == 0) return false;
+        }
+        return true;
+    }
+
+    interface Task {
+        int run();
+    }
+
+    private static long best(Task task) {
+        long best = Long.MAX_VALUE;
+        int sink = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long t = System.nanoTime();
+            sink += task.run();
+            best = Math.min(best, System.nanoTime() - t);
+        }
+        if (sink == -1) System.out.println(sink); // keeps the JIT from discarding the work
+        return best;
+    }
+
+    private static void report(String name, int values, long nanos) {
+        System.out.printf("%-24s %,10d values  %10.2f ms  %8.1f ns/value%n", name, values, nanos / 1e6, (double) nanos / values);
+    }
+}